@@ -20,13 +20,23 @@
 package integration;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import loci.formats.in.FakeReader;
 
+import ome.formats.OMEROMetadataStoreClient;
 import ome.formats.importer.IObservable;
 import ome.formats.importer.IObserver;
 import ome.formats.importer.ImportCandidates;
@@ -226,10 +236,20 @@ public class ImportLibraryTest extends AbstractServerTest {
      * @return See above.
      */
     private ImportCandidates getCandidates(File f) throws Exception {
+        return getCandidates(f.getAbsolutePath());
+    }
+
+    /**
+     * Returns the import candidates found by scanning the specified paths.
+     * Each call uses its own reader so that scans may run concurrently.
+     *
+     * @param paths
+     *            The files or directories to scan.
+     * @return See above.
+     */
+    private ImportCandidates getCandidates(String... paths) throws Exception {
         ImportConfig config = new ImportConfig();
         OMEROWrapper reader = new OMEROWrapper(config);
-        String[] paths = new String[1];
-        paths[0] = f.getAbsolutePath();
         IObserver o = new IObserver() {
             public void update(IObservable importLibrary, ImportEvent event) {
 
@@ -881,6 +901,135 @@ public class ImportLibraryTest extends AbstractServerTest {
                 "testImportMetadataAfterUploadToRepositoryRWByMember");
     }
 
+    /**
+     * Test that scanning the subdirectories of a tree concurrently, each with
+     * its own reader, finds the same import containers as scanning the whole
+     * tree on a single thread.
+     * @throws Exception unexpected
+     */
+    @Test
+    public void testImportCandidatesScannedConcurrently() throws Exception {
+        final int subdirectoryCount = 4;
+        final int filesPerDirectory = 3;
+
+        /* create a tree of fake images, each directory having a nested one */
+        final File root = Files.createTempDirectory("testImportCandidatesScannedConcurrently").toFile();
+        root.deleteOnExit();
+        final List<String> subdirectories = new ArrayList<String>();
+        final Set<String> expected = new HashSet<String>();
+        for (int i = 0; i < subdirectoryCount; i++) {
+            final File subdirectory = new File(root, "dir" + i);
+            final File nested = new File(subdirectory, "nested");
+            Assert.assertTrue(nested.mkdirs());
+            subdirectory.deleteOnExit();
+            nested.deleteOnExit();
+            subdirectories.add(subdirectory.getAbsolutePath());
+            for (final File directory : new File[] {subdirectory, nested}) {
+                for (int j = 0; j < filesPerDirectory; j++) {
+                    final File image = new File(directory, "image" + j + ".fake");
+                    Assert.assertTrue(image.createNewFile());
+                    image.deleteOnExit();
+                    expected.add(image.getAbsolutePath());
+                }
+            }
+        }
+
+        /* scan the subdirectories concurrently */
+        final ExecutorService executor = Executors.newFixedThreadPool(subdirectoryCount);
+        final Set<String> concurrent = new HashSet<String>();
+        try {
+            final List<Future<ImportCandidates>> scans = new ArrayList<Future<ImportCandidates>>();
+            for (final String subdirectory : subdirectories) {
+                scans.add(executor.submit(new Callable<ImportCandidates>() {
+                    @Override
+                    public ImportCandidates call() throws Exception {
+                        return getCandidates(subdirectory);
+                    }
+                }));
+            }
+            for (final Future<ImportCandidates> scan : scans) {
+                for (final ImportContainer ic : scan.get().getContainers()) {
+                    concurrent.add(ic.getFile().getAbsolutePath());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        /* scan the whole tree on this thread */
+        final Set<String> serial = new HashSet<String>();
+        for (final ImportContainer ic : getCandidates(root).getContainers()) {
+            serial.add(ic.getFile().getAbsolutePath());
+        }
+
+        Assert.assertEquals(serial, expected);
+        Assert.assertEquals(concurrent, serial);
+    }
+
+    /**
+     * Test that independent filesets may be imported concurrently, each by its
+     * own import library, with every import reporting its completion.
+     * @throws Throwable unexpected
+     */
+    @Test
+    public void testImportFilesetsConcurrently() throws Throwable {
+        final int filesetCount = 4;
+        final int threadCount = 2;
+        login("rw----", MEMBER);
+
+        final List<File> files = new ArrayList<File>();
+        for (int i = 0; i < filesetCount; i++) {
+            final File f = File.createTempFile("testImportFilesetsConcurrently" + i, ".fake");
+            f.deleteOnExit();
+            files.add(f);
+        }
+
+        /* count completions across all the imports */
+        final AtomicInteger done = new AtomicInteger();
+        final IObserver observer = new IObserver() {
+            public void update(IObservable importLibrary, ImportEvent event) {
+                if (event instanceof ImportEvent.IMPORT_DONE) {
+                    done.incrementAndGet();
+                }
+            }
+        };
+
+        /* import the filesets with no more than threadCount running at once */
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final List<Future<List<Pixels>>> imports = new ArrayList<Future<List<Pixels>>>();
+        try {
+            for (int i = 0; i < filesetCount; i++) {
+                final int index = i;
+                imports.add(executor.submit(new Callable<List<Pixels>>() {
+                    @Override
+                    public List<Pixels> call() throws Exception {
+                        final OMEROMetadataStoreClient store = new OMEROMetadataStoreClient();
+                        try {
+                            store.initialize(client);
+                            final ImportLibrary library = new ImportLibrary(store,
+                                    new OMEROWrapper(new ImportConfig()));
+                            library.addObserver(observer);
+                            final ImportContainer ic = getCandidates(files.get(index)).getContainers().get(0);
+                            return library.importImage(ic, index, 0, filesetCount);
+                        } finally {
+                            store.closeServices();
+                        }
+                    }
+                }));
+            }
+            final Set<Long> imageIds = new HashSet<Long>();
+            for (final Future<List<Pixels>> result : imports) {
+                final List<Pixels> pixels = result.get();
+                Assert.assertEquals(pixels.size(), 1);
+                imageIds.add(pixels.get(0).getImage().getId().getValue());
+            }
+            Assert.assertEquals(imageIds.size(), filesetCount);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(done.get(), filesetCount);
+    }
+
     /**
      * Test that an imported image is placed into a target dataset even if the dataset is edited when thumbnails are generated.
      * @throws Exception unexpected
@@ -22,6 +22,7 @@ import ome.specification.XMLMockObjects;
 import ome.specification.XMLWriter;
 import ome.xml.model.OME;
 import ome.xml.model.primitives.Color;
+import omero.RLong;
 import omero.api.IAdminPrx;
 import omero.api.IRoiPrx;
 import omero.api.RoiOptions;
@@ -1450,6 +1451,52 @@ public class ImporterTest extends AbstractServerTest {
         }
     }
 
+    /**
+     * Tests the import of an OME-XML file with a plate having a full 96-well
+     * layout and several fields per well, checking that the complete graph of
+     * wells, well samples, images and channels is persisted.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test(groups = {"ticket12601"})
+    public void testImportLargePlate() throws Exception {
+        File f = File.createTempFile("testImportLargePlate", "." + OME_FORMAT);
+        f.deleteOnExit();
+        int rows = 8;
+        int columns = 12;
+        int fields = 2;
+        XMLMockObjects xml = new XMLMockObjects();
+        XMLWriter writer = new XMLWriter();
+        OME ome = xml.createPopulatedScreen(1, rows, columns, fields, 1);
+        writer.writeFile(f, ome, true);
+        int channels = 0;
+        for (int i = 0; i < ome.sizeOfImageList(); i++) {
+            channels += ome.getImage(i).getPixels().sizeOfChannelList();
+        }
+        List<Pixels> pixels = null;
+        try {
+            pixels = importFile(f, OME_FORMAT);
+        } catch (Throwable e) {
+            throw new Exception("cannot import the plate", e);
+        }
+        Assert.assertEquals(pixels.size(), rows * columns * fields);
+        Plate plate = getWellSample(pixels.get(0)).getWell().getPlate();
+        ParametersI param = new ParametersI();
+        param.addId(plate.getId().getValue());
+
+        String sql = "select count(w) from Well as w where w.plate.id = :id";
+        Assert.assertEquals(((RLong) iQuery.projection(sql, param).get(0).get(0)).getValue(),
+                rows * columns);
+        sql = "select count(ws) from WellSample as ws where ws.well.plate.id = :id";
+        Assert.assertEquals(((RLong) iQuery.projection(sql, param).get(0).get(0)).getValue(),
+                rows * columns * fields);
+        sql = "select count(c) from Channel as c where c.pixels.image.id in ";
+        sql += "(select ws.image.id from WellSample as ws where ws.well.plate.id = :id)";
+        Assert.assertEquals(((RLong) iQuery.projection(sql, param).get(0).get(0)).getValue(),
+                channels);
+    }
+
     /**
      * Tests the import of an OME-XML file with a plate with wells linked to a
      * reagent.
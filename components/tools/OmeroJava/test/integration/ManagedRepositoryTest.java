@@ -22,13 +22,31 @@ package integration;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import loci.formats.in.FakeReader;
+
+import ome.formats.OMEROMetadataStoreClient;
+import ome.formats.importer.ImportConfig;
+import ome.formats.importer.ImportContainer;
+import ome.formats.importer.ImportLibrary;
+import ome.formats.importer.ImportLibrary.ImportCallback;
+import ome.formats.importer.OMEROWrapper;
 import ome.services.blitz.repo.path.ClientFilePathTransformer;
 import ome.services.blitz.repo.path.FilePathRestrictionInstance;
 import ome.services.blitz.repo.path.FilePathRestrictions;
@@ -48,6 +66,7 @@ import omero.api.RawFileStorePrx;
 import omero.cmd.CmdCallbackI;
 import omero.cmd.HandlePrx;
 import omero.grid.ImportLocation;
+import omero.grid.ImportProcessPrx;
 import omero.grid.ManagedRepositoryPrx;
 import omero.grid.ManagedRepositoryPrxHelper;
 import omero.grid.RawAccessRequest;
@@ -601,6 +620,143 @@ public class ManagedRepositoryTest extends AbstractServerImportTest {
         }
     }
 
+    /**
+     * Copy a range of a local file to an uploader, one block at a time.
+     * @param rfs the uploader to write to
+     * @param file the local file to read from
+     * @param offset the offset at which the range starts
+     * @param length the length of the range
+     * @param blockSize the maximum number of bytes to send per write
+     * @throws IOException if the local file could not be read
+     * @throws ServerError if the upload failed
+     */
+    private static void uploadRange(RawFileStorePrx rfs, File file, long offset, long length, int blockSize)
+            throws IOException, ServerError {
+        final byte[] buf = new byte[blockSize];
+        try (final RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(offset);
+            long written = 0;
+            while (written < length) {
+                final int n = (int) Math.min(buf.length, length - written);
+                in.readFully(buf, 0, n);
+                rfs.write(n == buf.length ? buf : Arrays.copyOf(buf, n), offset + written, n);
+                written += n;
+            }
+        }
+    }
+
+    /**
+     * Test that the files of a fileset may be uploaded concurrently, that a
+     * large file may be uploaded as ranges written in parallel, and that an
+     * interrupted upload may resume from the size the uploader reports.
+     * @throws Exception unexpected
+     */
+    @Test
+    public void testUploadFilesetConcurrently() throws Exception {
+        final int smallFileCount = 4;
+        final int largeFileSize = 4 * 1024 * 1024;
+        final int rangeCount = 4;
+
+        /* prepare the fileset, the last file being large */
+        final File uniquePath = tempFileManager.createPath(UUID.randomUUID().toString(), null, true);
+        final List<String> srcPaths = new ArrayList<String>();
+        for (int i = 0; i < smallFileCount; i++) {
+            srcPaths.add(ensureFileExists(uniquePath, UUID.randomUUID().toString() + ".fake").getAbsolutePath());
+        }
+        final File largeFile = new File(uniquePath, UUID.randomUUID().toString() + ".fake");
+        final byte[] largeContents = new byte[largeFileSize];
+        new Random(largeFileSize).nextBytes(largeContents);
+        Files.write(largeFile.toPath(), largeContents);
+        srcPaths.add(largeFile.getAbsolutePath());
+
+        /* start the import */
+        final OMEROMetadataStoreClient store = new OMEROMetadataStoreClient();
+        store.initialize(client);
+        try {
+            final ImportLibrary lib = new ImportLibrary(store, new OMEROWrapper(new ImportConfig()));
+            final ImportContainer container = new ImportContainer(new File(srcPaths.get(0)), null, null,
+                    FakeReader.class.getName(), srcPaths.toArray(new String[srcPaths.size()]), false);
+            final ImportProcessPrx proc = lib.createImport(container);
+            final String[] srcFiles = container.getUsedFiles();
+            final ChecksumType checksumType =
+                    ChecksumAlgorithmMapper.getChecksumType(proc.getImportSettings().checksumAlgorithm);
+            final int blockSize = store.getDefaultBlockSize();
+
+            final ExecutorService executor = Executors.newFixedThreadPool(rangeCount);
+            try {
+                /* upload the small files concurrently, each through its own uploader */
+                final List<Future<?>> uploads = new ArrayList<Future<?>>();
+                for (int i = 0; i < srcFiles.length - 1; i++) {
+                    final int index = i;
+                    uploads.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            final File file = new File(srcFiles[index]);
+                            final RawFileStorePrx rfs = proc.getUploader(index);
+                            try {
+                                uploadRange(rfs, file, 0, file.length(), blockSize);
+                            } finally {
+                                rfs.close();
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                for (final Future<?> upload : uploads) {
+                    upload.get();
+                }
+
+                /* upload the first part of the large file then stop, as if interrupted */
+                final RawFileStorePrx interrupted = proc.getUploader(srcFiles.length - 1);
+                try {
+                    uploadRange(interrupted, largeFile, 0, largeFileSize / rangeCount, blockSize);
+                } finally {
+                    interrupted.close();
+                }
+
+                /* resume with a new uploader from the last confirmed offset, writing the remaining ranges in parallel */
+                final RawFileStorePrx rfs = proc.getUploader(srcFiles.length - 1);
+                try {
+                    final long resumeOffset = rfs.size();
+                    Assert.assertEquals(resumeOffset, largeFileSize / rangeCount);
+                    final long rangeSize = (largeFileSize - resumeOffset + rangeCount - 1) / rangeCount;
+                    uploads.clear();
+                    for (long offset = resumeOffset; offset < largeFileSize; offset += rangeSize) {
+                        final long rangeOffset = offset;
+                        final long rangeLength = Math.min(rangeSize, largeFileSize - offset);
+                        uploads.add(executor.submit(new Callable<Void>() {
+                            @Override
+                            public Void call() throws Exception {
+                                uploadRange(rfs, largeFile, rangeOffset, rangeLength, blockSize);
+                                return null;
+                            }
+                        }));
+                    }
+                    for (final Future<?> upload : uploads) {
+                        upload.get();
+                    }
+                    Assert.assertEquals(rfs.size(), largeFileSize);
+                } finally {
+                    rfs.close();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            /* the server must agree with the local checksums of every file */
+            final List<String> checksums = new ArrayList<String>();
+            for (final String srcFile : srcFiles) {
+                checksums.add(CHECKSUM_PROVIDER_FACTORY.getProvider(checksumType).putFile(srcFile).checksumAsString());
+            }
+            final HandlePrx handle = proc.verifyUpload(checksums);
+            final ImportCallback cb = lib.createCallback(proc, handle, container);
+            cb.loop(60 * 60, 1000);
+            Assert.assertNotNull(cb.getImportResponse());
+        } finally {
+            store.closeServices();
+        }
+    }
+
     /**
      * Make sure that the call to delete the import location's used files
      * returns with success.
@@ -661,11 +817,11 @@ public class ManagedRepositoryTest extends AbstractServerImportTest {
     }
 
     /**
-     * Upload the sample file to the repository.
-     * @return the new original file's ID
+     * Create a new directory in the repository for a sample file.
+     * @return a path in that directory at which no file yet exists
      * @throws ServerError unexpected
      */
-    private long uploadSampleFile() throws ServerError {
+    private String newSampleFilePath() throws ServerError {
         final EventContext ctx = iAdmin.getEventContext();
         final StringBuffer path = new StringBuffer();
         path.append(ctx.userName);
@@ -681,8 +837,16 @@ public class ManagedRepositoryTest extends AbstractServerImportTest {
 
         path.append(FsFile.separatorChar);
         path.append(System.nanoTime());
+        return path.toString();
+    }
 
-        final RawFileStorePrx rfs = repo.file(path.toString(), "rw");
+    /**
+     * Upload the sample file to the repository.
+     * @return the new original file's ID
+     * @throws ServerError unexpected
+     */
+    private long uploadSampleFile() throws ServerError {
+        final RawFileStorePrx rfs = repo.file(newSampleFilePath(), "rw");
         rfs.write(SAMPLE_FILE_CONTENTS, 0, SAMPLE_FILE_CONTENTS.length);
         final long fileId = rfs.save().getId().getValue();
         rfs.close();
@@ -881,6 +1045,44 @@ public class ManagedRepositoryTest extends AbstractServerImportTest {
                 "expected the exactly corrupted files to fail checksum verification");
     }
 
+    /**
+     * Test that a checksum computed by the client on each block as it is
+     * uploaded matches the checksum that the repository sets on save, for
+     * whichever algorithm the repository is configured to use.
+     * @throws ServerError unexpected
+     */
+    @Test
+    public void testChecksumStreamedDuringUpload() throws ServerError {
+        final int blockSize = 64 * 1024;
+        final int fileSize = 10 * blockSize + 123;
+        final byte[] contents = new byte[fileSize];
+        new Random(fileSize).nextBytes(contents);
+
+        /* hash each block with every algorithm as it is sent */
+        final Map<ChecksumType, ChecksumProvider> hashers = new EnumMap<ChecksumType, ChecksumProvider>(ChecksumType.class);
+        for (final ChecksumType type : ChecksumType.values()) {
+            hashers.put(type, CHECKSUM_PROVIDER_FACTORY.getProvider(type));
+        }
+        final RawFileStorePrx rfs = repo.file(newSampleFilePath(), "rw");
+        for (int offset = 0; offset < fileSize; offset += blockSize) {
+            final byte[] block = Arrays.copyOfRange(contents, offset, Math.min(offset + blockSize, fileSize));
+            rfs.write(block, offset, block.length);
+            for (final ChecksumProvider hasher : hashers.values()) {
+                hasher.putBytes(block);
+            }
+        }
+        final long fileId = rfs.save().getId().getValue();
+        rfs.close();
+
+        /* the repository's checksum from saving must match the streamed one */
+        final OriginalFile file = getFile(fileId);
+        Assert.assertNotNull(file.getHasher(), "expected the repository to set a checksum on save");
+        final String savedHasher = file.getHasher().getValue().getValue();
+        final ChecksumType savedType =
+                ChecksumAlgorithmMapper.getChecksumType(ChecksumAlgorithmMapper.getChecksumAlgorithm(savedHasher));
+        assertFileChecksum(fileId, savedHasher, hashers.get(savedType).checksumAsString());
+    }
+
     /**
      * A normal user can create a directory within their own parent directory.
      * @throws Exception unexpected
@@ -22,7 +22,9 @@ package integration;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 
@@ -30,6 +32,7 @@ import javax.imageio.ImageIO;
 import javax.imageio.ImageWriter;
 import javax.imageio.stream.ImageOutputStream;
 
+import omero.api.RawPixelsStorePrx;
 import omero.model.Image;
 import omero.model.Pixels;
 import omero.model.StatsInfo;
@@ -282,4 +285,115 @@ public class PyramidMinMaxTest extends AbstractServerTest {
 
         image.setPixels(0, loop.getPixels());
     }
+
+    /**
+     * Test the creation of tiles keeping several <code>setTile</code> calls
+     * in flight on a single store, then saving once.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testPipelinedSetTile() throws Exception {
+        int sizeX = 256;
+        int sizeY = 256;
+        int tileSize = 64;
+        int inFlight = 4;
+        Image image = mmFactory.createImage(sizeX, sizeY, 1, 1, 1,
+                ModelMockFactory.UINT16);
+        image = (Image) iUpdate.saveAndReturnObject(image);
+        Pixels pixels = image.getPrimaryPixels();
+        RawPixelsStorePrx svc = factory.createRawPixelsStore();
+        try {
+            svc.setPixelsId(pixels.getId().getValue(), false);
+            Deque<Ice.AsyncResult> pending = new ArrayDeque<Ice.AsyncResult>();
+            List<byte[]> tiles = new ArrayList<byte[]>();
+            for (int y = 0; y < sizeY; y += tileSize) {
+                for (int x = 0; x < sizeX; x += tileSize) {
+                    byte[] tile = new byte[tileSize * tileSize * 2];
+                    for (int i = 0; i < tile.length; i++) {
+                        tile[i] = (byte) (i + tiles.size());
+                    }
+                    tiles.add(tile);
+                    if (pending.size() == inFlight) {
+                        svc.end_setTile(pending.removeFirst());
+                    }
+                    pending.addLast(svc.begin_setTile(tile, 0, 0, 0, x, y,
+                            tileSize, tileSize));
+                }
+            }
+            while (!pending.isEmpty()) {
+                svc.end_setTile(pending.removeFirst());
+            }
+            Assert.assertNotNull(svc.save());
+            int index = 0;
+            for (int y = 0; y < sizeY; y += tileSize) {
+                for (int x = 0; x < sizeX; x += tileSize) {
+                    byte[] r = svc.getTile(0, 0, 0, x, y, tileSize, tileSize);
+                    Assert.assertEquals(sha1(r), sha1(tiles.get(index++)));
+                }
+            }
+        } finally {
+            svc.close();
+        }
+    }
+
+    /**
+     * Test that writing tiles through the <code>RawPixelsStore</code> and
+     * saving leaves the channels' stats as they were set when the image was
+     * created: the global min/max of the written data are not computed on
+     * save but only by a later pass over the pixel data.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testStatsUnchangedBySetTile() throws Exception {
+        int sizeX = 128;
+        int sizeY = 128;
+        int tileSize = 64;
+        int sizeC = 2;
+        Image image = mmFactory.createImage(sizeX, sizeY, 1, 1, sizeC,
+                ModelMockFactory.UINT16);
+        image = (Image) iUpdate.saveAndReturnObject(image);
+        Pixels pixels = image.getPrimaryPixels();
+        long id = pixels.getId().getValue();
+        Pixels before = factory.getPixelsService().retrievePixDescription(id);
+        RawPixelsStorePrx svc = factory.createRawPixelsStore();
+        try {
+            svc.setPixelsId(id, false);
+            for (int c = 0; c < sizeC; c++) {
+                int value = 0;
+                for (int y = 0; y < sizeY; y += tileSize) {
+                    for (int x = 0; x < sizeX; x += tileSize) {
+                        // every tile holds a single value, the tiles of
+                        // channel c cover [100 * (c + 1), 100 * (c + 1) + 3]
+                        int v = 100 * (c + 1) + value++;
+                        byte[] tile = new byte[tileSize * tileSize * 2];
+                        for (int i = 0; i < tile.length; i += 2) {
+                            tile[i] = (byte) (v >>> 8);
+                            tile[i + 1] = (byte) v;
+                        }
+                        svc.setTile(tile, 0, c, 0, x, y, tileSize, tileSize);
+                    }
+                }
+            }
+            svc.save();
+        } finally {
+            svc.close();
+        }
+        Pixels after = factory.getPixelsService().retrievePixDescription(id);
+        for (int c = 0; c < sizeC; c++) {
+            StatsInfo expected = before.getChannel(c).getStatsInfo();
+            StatsInfo stats = after.getChannel(c).getStatsInfo();
+            Assert.assertNotNull(stats);
+            Assert.assertEquals(stats.getGlobalMin().getValue(),
+                    expected.getGlobalMin().getValue());
+            Assert.assertEquals(stats.getGlobalMax().getValue(),
+                    expected.getGlobalMax().getValue());
+            // the written data's max is not known yet
+            Assert.assertTrue(stats.getGlobalMax().getValue()
+                    != 100.0 * (c + 1) + 3);
+        }
+    }
 }
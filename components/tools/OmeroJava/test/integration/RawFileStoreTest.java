@@ -4,8 +4,18 @@
  */
 package integration;
 
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import omero.ServerError;
 import omero.api.IScriptPrx;
@@ -79,6 +89,87 @@ public class RawFileStoreTest extends AbstractServerTest {
         svc.close();
     }
 
+    /**
+     * Tests the download of a file in ranges read concurrently by several
+     * stores opened on the same file, each range being written at its offset
+     * into a local file. This tests uses the <code>read</code> method.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     * @see #testDownloadFile()
+     */
+    @Test
+    public void testDownloadFileInConcurrentRanges() throws Exception {
+        RawFileStorePrx svc = factory.createRawFileStore();
+        OriginalFile f = mmFactory.createOriginalFile();
+        f = (OriginalFile) iUpdate.saveAndReturnObject(f);
+        final long id = f.getId().getValue();
+        svc.setFileId(id);
+        byte[] data = new byte[1000000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        svc.write(data, 0, data.length);
+        f = svc.save();
+        svc.close();
+
+        final long size = f.getSize().getValue();
+        Assert.assertEquals(size, data.length);
+        final int blockSize = 65536;
+        int streams = 4;
+        File local = File.createTempFile("testDownloadFileInConcurrentRanges",
+                ".bin");
+        local.deleteOnExit();
+        try {
+            ExecutorService pool = Executors.newFixedThreadPool(streams);
+            RandomAccessFile raf = new RandomAccessFile(local, "rw");
+            try {
+                raf.setLength(size);
+                final FileChannel channel = raf.getChannel();
+                List<Future<Long>> results = new ArrayList<Future<Long>>();
+                long range = (size + streams - 1) / streams;
+                for (long start = 0; start < size; start += range) {
+                    final long from = start;
+                    final long to = Math.min(start + range, size);
+                    results.add(pool.submit(new Callable<Long>() {
+                        public Long call() throws Exception {
+                            RawFileStorePrx store = factory.createRawFileStore();
+                            try {
+                                store.setFileId(id);
+                                long offset = from;
+                                while (offset < to) {
+                                    int length = (int) Math.min(blockSize,
+                                            to - offset);
+                                    ByteBuffer buf = ByteBuffer.wrap(
+                                            store.read(offset, length));
+                                    Assert.assertEquals(buf.remaining(), length);
+                                    while (buf.hasRemaining()) {
+                                        offset += channel.write(buf, offset);
+                                    }
+                                }
+                                return offset - from;
+                            } finally {
+                                store.close();
+                            }
+                        }
+                    }));
+                }
+                long written = 0;
+                for (Future<Long> result : results) {
+                    written += result.get();
+                }
+                Assert.assertEquals(written, size);
+            } finally {
+                raf.close();
+                pool.shutdownNow();
+            }
+            byte[] values = Files.readAllBytes(local.toPath());
+            Assert.assertEquals(sha1(values), sha1(data));
+        } finally {
+            local.delete();
+        }
+    }
+
     /**
      * Tests the download of the scripts. This tests uses the <code>read</code>
      * method.
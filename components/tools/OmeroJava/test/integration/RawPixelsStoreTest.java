@@ -180,6 +180,140 @@ public class RawPixelsStoreTest extends AbstractServerTest {
                 * ModelMockFactory.SIZE_T, r.length);
     }
 
+    /**
+     * Tests to retrieve a hypercube sampled with a step greater than one in
+     * X, Y and Z, this method will test the <code>setPlane</code> and
+     * <code>getHypercube</code> methods.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testGetHypercubeWithStep() throws Exception {
+        int size = RomioPixelBuffer.safeLongToInteger(svc.getPlaneSize());
+        int width = svc.getByteWidth();
+        for (int z = 0; z < ModelMockFactory.SIZE_Z; z++) {
+            svc.setPlane(prepareTestByteArray(size, z), z, 0, 0);
+        }
+        int stepXY = 2;
+        int stepZ = 5;
+        List<Integer> offset = Arrays.asList(new Integer[] { 0, 0, 0, 0, 0 });
+        List<Integer> dims = Arrays.asList(new Integer[] {
+                ModelMockFactory.SIZE_X, ModelMockFactory.SIZE_Y,
+                ModelMockFactory.SIZE_Z, 1, 1 });
+        List<Integer> step = Arrays.asList(new Integer[] {
+                stepXY, stepXY, stepZ, 1, 1 });
+        byte[] r = svc.getHypercube(offset, dims, step);
+        int sizeX = ModelMockFactory.SIZE_X / stepXY;
+        int sizeY = ModelMockFactory.SIZE_Y / stepXY;
+        int sizeZ = ModelMockFactory.SIZE_Z / stepZ;
+        Assert.assertNotNull(r);
+        Assert.assertEquals(r.length, sizeX * sizeY * sizeZ * width);
+        int index = 0;
+        for (int z = 0; z < sizeZ; z++) {
+            byte[] plane = svc.getPlane(z * stepZ, 0, 0);
+            for (int y = 0; y < sizeY; y++) {
+                for (int x = 0; x < sizeX; x++) {
+                    int src = ((y * stepXY) * ModelMockFactory.SIZE_X
+                            + x * stepXY) * width;
+                    for (int b = 0; b < width; b++) {
+                        Assert.assertEquals(r[index++], plane[src + b]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests to set a series of planes and retrieve them in a single call as
+     * a stack, this method will test the <code>setPlane</code>,
+     * <code>getStack</code> and <code>getPlane</code> methods.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testSetEveryPlaneGetStack() throws Exception {
+        int size = RomioPixelBuffer.safeLongToInteger(svc.getPlaneSize());
+        for (int t = 0; t < ModelMockFactory.SIZE_T; t++) {
+            for (int z = 0; z < ModelMockFactory.SIZE_Z; z++) {
+                svc.setPlane(prepareTestByteArray(size,
+                        z + t * ModelMockFactory.SIZE_Z), z, 0, t);
+            }
+        }
+        Assert.assertEquals(svc.getStackSize(), size * ModelMockFactory.SIZE_Z);
+        for (int t = 0; t < ModelMockFactory.SIZE_T; t++) {
+            byte[] stack = svc.getStack(0, t);
+            Assert.assertNotNull(stack);
+            Assert.assertEquals(stack.length, size * ModelMockFactory.SIZE_Z);
+            for (int z = 0; z < ModelMockFactory.SIZE_Z; z++) {
+                byte[] plane = svc.getPlane(z, 0, t);
+                Assert.assertEquals(sha1(stack, z * size, size), sha1(plane));
+            }
+        }
+    }
+
+    /**
+     * Tests to retrieve a range of planes in a single call as a hypercube,
+     * this method will test the <code>getHypercube</code> and
+     * <code>getPlane</code> methods.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testGetPlaneRangeAsHypercube() throws Exception {
+        int size = RomioPixelBuffer.safeLongToInteger(svc.getPlaneSize());
+        for (int z = 0; z < ModelMockFactory.SIZE_Z; z++) {
+            svc.setPlane(prepareTestByteArray(size, z), z, 0, 0);
+        }
+        int count = ModelMockFactory.SIZE_Z - 1;
+        List<Integer> offset = Arrays.asList(new Integer[] { 0, 0, 1, 0, 0 });
+        List<Integer> dims = Arrays.asList(new Integer[] {
+                ModelMockFactory.SIZE_X, ModelMockFactory.SIZE_Y, count, 1, 1 });
+        List<Integer> step = Arrays.asList(new Integer[] { 1, 1, 1, 1, 1 });
+        byte[] r = svc.getHypercube(offset, dims, step);
+        Assert.assertNotNull(r);
+        Assert.assertEquals(r.length, size * count);
+        for (int i = 0; i < count; i++) {
+            byte[] plane = svc.getPlane(i + 1, 0, 0);
+            Assert.assertEquals(sha1(r, i * size, size), sha1(plane));
+        }
+    }
+
+    /**
+     * Tests to set a plane and retrieve every row and column of it, this
+     * method will test the <code>setPlane</code>, <code>getRow</code> and
+     * <code>getCol</code> methods.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testSetPlaneGetRowAndCol() throws Exception {
+        byte[] data = prepareTestByteArray(
+                RomioPixelBuffer.safeLongToInteger(svc.getPlaneSize()), 0);
+        svc.setPlane(data, 0, 0, 0);
+        int width = svc.getByteWidth();
+        int rowSize = svc.getRowSize();
+        Assert.assertEquals(rowSize, ModelMockFactory.SIZE_X * width);
+        for (int y = 0; y < ModelMockFactory.SIZE_Y; y++) {
+            byte[] row = svc.getRow(y, 0, 0, 0);
+            Assert.assertEquals(row.length, rowSize);
+            Assert.assertEquals(sha1(row), sha1(data, y * rowSize, rowSize));
+        }
+        for (int x = 0; x < ModelMockFactory.SIZE_X; x++) {
+            byte[] col = svc.getCol(x, 0, 0, 0);
+            Assert.assertEquals(col.length, ModelMockFactory.SIZE_Y * width);
+            byte[] expected = new byte[col.length];
+            for (int y = 0; y < ModelMockFactory.SIZE_Y; y++) {
+                System.arraycopy(data, y * rowSize + x * width, expected,
+                        y * width, width);
+            }
+            Assert.assertEquals(sha1(col), sha1(expected));
+        }
+    }
+
     /**
      * Tests the <code>getPlaneSize</code> method is accurate.
      *
@@ -588,6 +722,53 @@ public class RawPixelsStoreTest extends AbstractServerTest {
         }
     }
 
+    /**
+     * Tests the histogram data of a whole Z-stack obtained by merging the
+     * histograms of each plane, using an UINT8 image
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testGetHistogramStackUINT8() throws Exception {
+        localSetUp(1, 10, 10, ModelMockFactory.UINT8);
+        final int byteSize = (int) svc.getPlaneSize();
+        final int binCount = 256;
+        final int t = 0;
+
+        // plane z contains (z+1) px with value 255, all other pixels are 0,
+        // so every plane covers the full range and the bins line up
+        for (int z = 0; z < ModelMockFactory.SIZE_Z; z++) {
+            byte[] buf = new byte[byteSize];
+            for (int i = 0; i <= z; i++) {
+                buf[i] = (byte) 255;
+            }
+            svc.setPlane(buf, z, 0, t);
+        }
+
+        int[] merged = new int[binCount];
+        for (int z = 0; z < ModelMockFactory.SIZE_Z; z++) {
+            PlaneDef plane = new PlaneDef(omeis.providers.re.data.PlaneDef.XY,
+                    0, 0, z, t, null, -1);
+            Map<Integer, int[]> data = svc.getHistogram(new int[] { 0 },
+                    binCount, true, plane);
+            int[] counts = data.get(0);
+            Assert.assertEquals(counts.length, binCount);
+            Assert.assertEquals(counts[0], byteSize - (z + 1));
+            Assert.assertEquals(counts[binCount - 1], z + 1);
+            for (int bin = 0; bin < binCount; bin++) {
+                merged[bin] += counts[bin];
+            }
+        }
+
+        int high = ModelMockFactory.SIZE_Z * (ModelMockFactory.SIZE_Z + 1) / 2;
+        Assert.assertEquals(merged[0], byteSize * ModelMockFactory.SIZE_Z - high);
+        Assert.assertEquals(merged[binCount - 1], high);
+        for (int bin = 1; bin < binCount - 1; bin++) {
+            Assert.assertEquals(merged[bin], 0);
+        }
+    }
+
     /**
      * Convert an integer into a two byte array
      * 
@@ -31,6 +31,7 @@ import ome.specification.XMLWriter;
 import omero.api.IRenderingSettingsPrx;
 import omero.api.IScriptPrx;
 import omero.api.ITypesPrx;
+import omero.api.RawPixelsStorePrx;
 import omero.api.RenderingEnginePrx;
 import omero.cmd.Chgrp2;
 import omero.cmd.Delete2;
@@ -2349,6 +2350,106 @@ public class RenderingEngineTest extends AbstractServerTest {
         }
     }
 
+    /**
+     * Creates a single plane <code>uint8</code> image whose pixel values
+     * run from 0 to 255 and wrap around, in row order.
+     *
+     * @param sizeX The number of pixels along the X-axis.
+     * @param sizeY The number of pixels along the Y-axis.
+     * @return The id of the pixels set.
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    private long createGradientImage(int sizeX, int sizeY) throws Exception {
+        return createGradientImage(sizeX, sizeY, 1, 1);
+    }
+
+    /**
+     * Creates a <code>uint8</code> image whose pixel values run from 0 to
+     * 255 and wrap around, in row order, each plane being offset by its index
+     * <code>z + t * sizeZ</code> so that no two planes are the same.
+     *
+     * @param sizeX The number of pixels along the X-axis.
+     * @param sizeY The number of pixels along the Y-axis.
+     * @param sizeZ The number of z-sections.
+     * @param sizeT The number of timepoints.
+     * @return The id of the pixels set.
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    private long createGradientImage(int sizeX, int sizeY, int sizeZ,
+            int sizeT) throws Exception {
+        Image image = mmFactory.createImage(sizeX, sizeY, sizeZ, sizeT, 1,
+                ModelMockFactory.UINT8);
+        image = (Image) iUpdate.saveAndReturnObject(image);
+        long id = image.getPrimaryPixels().getId().getValue();
+        byte[] plane = new byte[sizeX * sizeY];
+        RawPixelsStorePrx rps = factory.createRawPixelsStore();
+        try {
+            rps.setPixelsId(id, false);
+            for (int t = 0; t < sizeT; t++) {
+                for (int z = 0; z < sizeZ; z++) {
+                    int offset = z + t * sizeZ;
+                    for (int i = 0; i < plane.length; i++) {
+                        plane[i] = (byte) (i + offset);
+                    }
+                    rps.setPlane(plane, z, 0, t);
+                }
+            }
+            rps.save();
+        } finally {
+            rps.close();
+        }
+        return id;
+    }
+
+    /**
+     * Tests that changing the input window of a channel, then restoring it,
+     * is reflected in the rendered values of every pixel.
+     * @throws Exception
+     */
+    @Test
+    public void testChannelWindowChangeAndRestore() throws Exception {
+        int size = 16;
+        long id = createGradientImage(size, size);
+        int count = size * size;
+        factory.getRenderingSettingsService().setOriginalSettingsInSet(
+                Pixels.class.getName(), Arrays.asList(id));
+        RenderingEnginePrx re = factory.createRenderingEngine();
+        re.lookupPixels(id);
+        if (!(re.lookupRenderingDef(id))) {
+            re.resetDefaultSettings(true);
+            re.lookupRenderingDef(id);
+        }
+        re.load();
+        PlaneDef pDef = new PlaneDef();
+        pDef.t = 0;
+        pDef.z = 0;
+        pDef.slice = omero.romio.XY.value;
+        int end = re.getQuantumDef().getCdEnd().getValue();
+
+        re.setChannelWindow(0, 0, 255);
+        int[] full = re.renderAsPackedInt(pDef);
+        re.setChannelWindow(0, 0, 127);
+        int[] half = re.renderAsPackedInt(pDef);
+        re.setChannelWindow(0, 0, 255);
+        int[] restored = re.renderAsPackedInt(pDef);
+        re.close();
+
+        Assert.assertEquals(full.length, count);
+        for (int i = 0; i < count; i++) {
+            int f = full[i] & 0x0ff;
+            int h = half[i] & 0x0ff;
+            if (i >= 127) {
+                Assert.assertEquals(h, end);
+            } else {
+                Assert.assertTrue(h >= f);
+            }
+        }
+        Assert.assertTrue((full[200] & 0x0ff) < end);
+        Assert.assertEquals(restored, full);
+    }
+
     /**
      * Tests add and remove codomain map context
      * @throws Exception
@@ -4467,6 +4568,204 @@ public class RenderingEngineTest extends AbstractServerTest {
         re.close();
     }
     
+    /**
+     * Tests that an engine already used to render one image can be pointed
+     * at another image and renders it as a new engine would, without keeping
+     * any setting changed on the first image.
+     * @throws Exception
+     */
+    @Test
+    public void testLookupPixelsOnLoadedEngine() throws Exception {
+        long firstId = createGradientImage(10, 10);
+        long secondId = createGradientImage(20, 30);
+        factory.getRenderingSettingsService().setOriginalSettingsInSet(
+                Pixels.class.getName(), Arrays.asList(firstId, secondId));
+        PlaneDef pDef = new PlaneDef();
+        pDef.t = 0;
+        pDef.z = 0;
+        pDef.slice = omero.romio.XY.value;
+
+        RenderingEnginePrx re = factory.createRenderingEngine();
+        re.lookupPixels(firstId);
+        if (!(re.lookupRenderingDef(firstId))) {
+            re.resetDefaultSettings(true);
+            re.lookupRenderingDef(firstId);
+        }
+        re.load();
+        int[] buffer = re.renderAsPackedInt(pDef);
+        Assert.assertEquals(buffer.length, 10 * 10);
+
+        // change the first image's settings so that a leak would show
+        re.setChannelWindow(0, 64, 128);
+        int[] windowed = re.renderAsPackedInt(pDef);
+        Assert.assertFalse(Arrays.equals(windowed, buffer));
+
+        // reuse the same engine for the second image
+        re.lookupPixels(secondId);
+        if (!(re.lookupRenderingDef(secondId))) {
+            re.resetDefaultSettings(true);
+            re.lookupRenderingDef(secondId);
+        }
+        re.load();
+        Assert.assertEquals(re.getPixels().getId().getValue(), secondId);
+        int[] reused = re.renderAsPackedInt(pDef);
+        re.close();
+
+        RenderingEnginePrx fresh = factory.createRenderingEngine();
+        fresh.lookupPixels(secondId);
+        Assert.assertTrue(fresh.lookupRenderingDef(secondId));
+        fresh.load();
+        int[] expected = fresh.renderAsPackedInt(pDef);
+        fresh.close();
+
+        Assert.assertEquals(reused.length, 20 * 30);
+        Assert.assertNotEquals(expected[1], expected[0]);
+        Assert.assertEquals(reused, expected);
+    }
+
+    /**
+     * Tests to render every plane of an image with all the
+     * <code>renderCompressed</code> calls sent before any result is read,
+     * the results must match the planes rendered one call at a time.
+     * @throws Exception
+     */
+    @Test
+    public void testRenderCompressedPipelined() throws Exception {
+        int sizeZ = 3;
+        int sizeT = 4;
+        long id = createGradientImage(16, 16, sizeZ, sizeT);
+        factory.getRenderingSettingsService().setOriginalSettingsInSet(
+                Pixels.class.getName(), Arrays.asList(id));
+        RenderingEnginePrx re = factory.createRenderingEngine();
+        re.lookupPixels(id);
+        if (!(re.lookupRenderingDef(id))) {
+            re.resetDefaultSettings(true);
+            re.lookupRenderingDef(id);
+        }
+        re.load();
+        List<PlaneDef> planes = new ArrayList<PlaneDef>();
+        for (int t = 0; t < sizeT; t++) {
+            for (int z = 0; z < sizeZ; z++) {
+                PlaneDef pDef = new PlaneDef();
+                pDef.t = t;
+                pDef.z = z;
+                pDef.slice = omero.romio.XY.value;
+                planes.add(pDef);
+            }
+        }
+        List<Ice.AsyncResult> pending = new ArrayList<Ice.AsyncResult>();
+        for (PlaneDef pDef : planes) {
+            pending.add(re.begin_renderCompressed(pDef));
+        }
+        List<byte[]> frames = new ArrayList<byte[]>();
+        for (Ice.AsyncResult result : pending) {
+            byte[] values = re.end_renderCompressed(result);
+            Assert.assertNotNull(values);
+            frames.add(values);
+        }
+        // every plane differs so a reply for the wrong plane would show
+        for (int i = 0; i < frames.size(); i++) {
+            for (int j = i + 1; j < frames.size(); j++) {
+                Assert.assertFalse(Arrays.equals(frames.get(i), frames.get(j)));
+            }
+        }
+        for (int i = 0; i < planes.size(); i++) {
+            Assert.assertEquals(frames.get(i),
+                    re.renderCompressed(planes.get(i)));
+        }
+        re.close();
+    }
+
+    /**
+     * Tests to render a region as horizontal strips using the
+     * <code>renderAsPackedInt</code> method, the stitched strips must match
+     * the region rendered in one call.
+     * @throws Exception
+     */
+    @Test
+    public void testRenderAsPackedIntRegionInStrips() throws Exception {
+        int sizeX = 64;
+        int sizeY = 64;
+        long id = createGradientImage(sizeX, sizeY);
+        factory.getRenderingSettingsService().setOriginalSettingsInSet(
+                Pixels.class.getName(), Arrays.asList(id));
+        RenderingEnginePrx re = factory.createRenderingEngine();
+        re.lookupPixels(id);
+        if (!(re.lookupRenderingDef(id))) {
+            re.resetDefaultSettings(true);
+            re.lookupRenderingDef(id);
+        }
+        re.load();
+        RegionDef r = new RegionDef(8, 4, 48, 56);
+        PlaneDef pDef = new PlaneDef();
+        pDef.t = 0;
+        pDef.z = 0;
+        pDef.slice = omero.romio.XY.value;
+        pDef.region = r;
+        int[] region = re.renderAsPackedInt(pDef);
+        Assert.assertEquals(region.length, r.width * r.height);
+
+        int strip = 10;
+        int[] stitched = new int[region.length];
+        for (int y = 0; y < r.height; y += strip) {
+            PlaneDef sDef = new PlaneDef();
+            sDef.t = 0;
+            sDef.z = 0;
+            sDef.slice = omero.romio.XY.value;
+            sDef.region = new RegionDef(r.x, r.y + y, r.width,
+                    Math.min(strip, r.height - y));
+            int[] values = re.renderAsPackedInt(sDef);
+            Assert.assertEquals(values.length,
+                    sDef.region.width * sDef.region.height);
+            System.arraycopy(values, 0, stitched, y * r.width, values.length);
+        }
+        re.close();
+        Assert.assertEquals(stitched, region);
+    }
+
+    /**
+     * Tests that identical settings render identical compressed bytes and
+     * that saved or reset settings are used by the next engine loaded.
+     * @throws Exception
+     */
+    @Test
+    public void testRenderCompressedAfterSaveAndReset() throws Exception {
+        long id = createGradientImage(16, 16);
+        factory.getRenderingSettingsService().setOriginalSettingsInSet(
+                Pixels.class.getName(), Arrays.asList(id));
+        PlaneDef pDef = new PlaneDef();
+        pDef.t = 0;
+        pDef.z = 0;
+        pDef.slice = omero.romio.XY.value;
+
+        RenderingEnginePrx re = factory.createRenderingEngine();
+        re.lookupPixels(id);
+        Assert.assertTrue(re.lookupRenderingDef(id));
+        re.load();
+        byte[] original = re.renderCompressed(pDef);
+        Assert.assertEquals(re.renderCompressed(pDef), original);
+        re.setChannelWindow(0, 0, 127);
+        re.saveCurrentSettings();
+        re.close();
+
+        re = factory.createRenderingEngine();
+        re.lookupPixels(id);
+        Assert.assertTrue(re.lookupRenderingDef(id));
+        re.load();
+        byte[] saved = re.renderCompressed(pDef);
+        Assert.assertFalse(Arrays.equals(saved, original));
+        re.resetDefaultSettings(true);
+        re.close();
+
+        re = factory.createRenderingEngine();
+        re.lookupPixels(id);
+        Assert.assertTrue(re.lookupRenderingDef(id));
+        re.load();
+        byte[] reset = re.renderCompressed(pDef);
+        re.close();
+        Assert.assertEquals(reset, original);
+    }
+
     //Inner class used to store rnd settings for channels
     class ChannelBindingPrx {
         Family family;
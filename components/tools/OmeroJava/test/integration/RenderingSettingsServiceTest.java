@@ -351,6 +351,52 @@ public class RenderingSettingsServiceTest extends AbstractServerTest {
         compareRenderingDef(def, def2);
     }
 
+    /**
+     * Tests to apply the rendering settings of one image to a collection of
+     * images, a few images per call. Tests the <code>ApplySettingsToSet</code>
+     * method.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testApplySettingsToSetForImageInBatches() throws Exception {
+        IRenderingSettingsPrx prx = factory.getRenderingSettingsService();
+        Image image = createBinaryImage();
+        Pixels pixels = image.getPrimaryPixels();
+        long id = pixels.getId().getValue();
+        prx.setOriginalSettingsInSet(Image.class.getName(),
+                Arrays.asList(image.getId().getValue()));
+        RenderingDef def = factory.getPixelsService().retrieveRndSettings(id);
+
+        int batchSize = 2;
+        List<Image> targets = new ArrayList<Image>();
+        for (int i = 0; i < 5; i++) {
+            targets.add(createBinaryImage());
+        }
+        List<Long> success = new ArrayList<Long>();
+        for (int i = 0; i < targets.size(); i += batchSize) {
+            List<Long> batch = new ArrayList<Long>();
+            for (Image target : targets.subList(i,
+                    Math.min(i + batchSize, targets.size()))) {
+                batch.add(target.getId().getValue());
+            }
+            Map<Boolean, List<Long>> m = prx.applySettingsToSet(id,
+                    Image.class.getName(), batch);
+            Assert.assertNotNull(m);
+            Assert.assertTrue(m.get(Boolean.FALSE).isEmpty());
+            Assert.assertEquals(m.get(Boolean.TRUE).size(), batch.size());
+            success.addAll(m.get(Boolean.TRUE));
+        }
+        Assert.assertEquals(success.size(), targets.size());
+        for (Image target : targets) {
+            Assert.assertTrue(success.contains(target.getId().getValue()));
+            RenderingDef def2 = factory.getPixelsService().retrieveRndSettings(
+                    target.getPrimaryPixels().getId().getValue());
+            compareRenderingDef(def, def2);
+        }
+    }
+
     /**
      * Tests to apply the rendering settings to a collection of images within a
      * dataset. Tests the <code>ApplySettingsToSet</code> method.
@@ -771,4 +771,34 @@ public class RoiServiceTest extends AbstractServerTest {
             assertEquals(calcStats.mean[0], expStats.mean[0]);
         }
     }
+
+    /**
+     * Tests that the stats computed for many shapes in one call are the
+     * same as the stats computed one shape at a time.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testStatsManyShapesMatchSingleShape() throws Exception {
+        IRoiPrx svc = factory.getRoiService();
+
+        final Map<Long,ShapeStats> testAndAssertData = setUpForStatsTest();
+        final List<Long> ids = new ArrayList<Long>(testAndAssertData.keySet());
+
+        final ShapeStats [] stats = svc.getShapeStatsRestricted(ids, 0, 0, new int[] {0});
+        assertEquals(stats.length, ids.size());
+        for (final ShapeStats calcStats : stats) {
+            final ShapeStats [] single = svc.getShapeStatsRestricted(
+                Arrays.asList(calcStats.shapeId), 0, 0, new int[] {0});
+            assertEquals(single.length, 1);
+            assertEquals(single[0].shapeId, calcStats.shapeId);
+            assertEquals(single[0].pointsCount, calcStats.pointsCount);
+            assertEquals(single[0].min, calcStats.min);
+            assertEquals(single[0].max, calcStats.max);
+            assertEquals(single[0].sum, calcStats.sum);
+            assertEquals(single[0].mean, calcStats.mean);
+            assertEquals(single[0].stdDev, calcStats.stdDev);
+        }
+    }
 }
@@ -154,6 +154,45 @@ public class TableTest extends AbstractServerTest {
         myTable.addData(newRow);
     }
 
+    /**
+     * Add rows in batches of {@link #DEFAULT_BUFFER_SIZE} and check that they
+     * are read back in the order they were appended.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testAddDataInBatches() throws Exception {
+        int rows = 10;
+        for (int start = 0; start < rows; start += DEFAULT_BUFFER_SIZE) {
+            int n = Math.min(DEFAULT_BUFFER_SIZE, rows - start);
+            Column[] newRows = createColumns(n);
+
+            LongColumn uids = (LongColumn) newRows[UID_COLUMN];
+            LongColumn myLongs = (LongColumn) newRows[LONG_COLUMN];
+            StringColumn myStrings = (StringColumn) newRows[STRING_COLUMN];
+
+            for (int i = 0; i < n; i++) {
+                uids.values[i] = start + i;
+                myLongs.values[i] = (start + i) * 10;
+                myStrings.values[i] = "row" + (start + i);
+            }
+            myTable.addData(newRows);
+        }
+
+        Assert.assertEquals(myTable.getNumberOfRows(), rows);
+
+        Data myData = myTable.read(ColNumbers, 0L, myTable.getNumberOfRows());
+        LongColumn uids = (LongColumn) myData.columns[UID_COLUMN];
+        LongColumn myLongs = (LongColumn) myData.columns[LONG_COLUMN];
+        StringColumn myStrings = (StringColumn) myData.columns[STRING_COLUMN];
+        for (int i = 0; i < rows; i++) {
+            Assert.assertEquals(uids.values[i], i);
+            Assert.assertEquals(myLongs.values[i], i * 10);
+            Assert.assertEquals(myStrings.values[i], "row" + i);
+        }
+    }
+
     /**
      * Retrieves the number of rows.
      *
@@ -354,6 +393,54 @@ public class TableTest extends AbstractServerTest {
         myTable.read(ColNumbers, 0L, myTable.getNumberOfRows());
     }
 
+    /**
+     * Tests <code>read()</code> in chunks of {@link #DEFAULT_BUFFER_SIZE}
+     * rows, the chunks must match a read of the whole table.
+     *
+     * @throws Exception
+     *             Thrown if an error occurred.
+     */
+    @Test
+    public void testReadInChunks() throws Exception {
+        int rows = 10;
+        Column[] newRow = createColumns(rows);
+
+        LongColumn uids = (LongColumn) newRow[UID_COLUMN];
+        LongColumn myLongs = (LongColumn) newRow[LONG_COLUMN];
+        StringColumn myStrings = (StringColumn) newRow[STRING_COLUMN];
+
+        for (int i = 0; i < rows; i++) {
+            uids.values[i] = i;
+            myLongs.values[i] = i * 10;
+            myStrings.values[i] = "row" + i;
+        }
+
+        myTable.addData(newRow);
+        long total = myTable.getNumberOfRows();
+        Assert.assertEquals(total, rows);
+
+        Data all = myTable.read(ColNumbers, 0L, total);
+        long[] allLongs = ((LongColumn) all.columns[LONG_COLUMN]).values;
+        String[] allStrings = ((StringColumn) all.columns[STRING_COLUMN]).values;
+
+        int read = 0;
+        for (long start = 0; start < total; start += DEFAULT_BUFFER_SIZE) {
+            long stop = Math.min(start + DEFAULT_BUFFER_SIZE, total);
+            Data chunk = myTable.read(ColNumbers, start, stop);
+            Assert.assertEquals(chunk.rowNumbers.length, stop - start);
+            long[] longs = ((LongColumn) chunk.columns[LONG_COLUMN]).values;
+            String[] strings = ((StringColumn) chunk.columns[STRING_COLUMN]).values;
+            Assert.assertEquals(longs.length, stop - start);
+            for (int i = 0; i < longs.length; i++) {
+                Assert.assertEquals(chunk.rowNumbers[i], start + i);
+                Assert.assertEquals(longs[i], allLongs[(int) start + i]);
+                Assert.assertEquals(strings[i], allStrings[(int) start + i]);
+                read++;
+            }
+        }
+        Assert.assertEquals(read, rows);
+    }
+
     /**
      * Tests <code>slice</code> method.
      *
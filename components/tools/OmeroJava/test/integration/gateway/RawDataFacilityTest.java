@@ -20,6 +20,8 @@
  */
 package integration.gateway;
 
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -94,6 +96,49 @@ public class RawDataFacilityTest extends GatewayTest {
         Assert.assertEquals(plane.getPixelValues(), expPixelData);
     }
     
+    @Test
+    public void testGetPixelValuesUINT16() throws Exception {
+        String name = UUID.randomUUID().toString();
+        IPixelsPrx svc = gw.getPixelsService(rootCtx);
+        List<IObject> types = gw.getTypesService(rootCtx)
+                .allEnumerations(PixelsType.class.getName());
+        PixelsType type = null;
+        for (IObject o : types) {
+            PixelsType t = (PixelsType) o;
+            if ("uint16".equals(t.getValue().getValue()))
+                type = t;
+        }
+        Assert.assertNotNull(type);
+        List<Integer> channels = new ArrayList<Integer>();
+        channels.add(0);
+        long id = svc.createImage(100, 100, 1, 1, channels, type, name, "")
+                .getValue();
+        ImageData img = browseFacility.getImage(rootCtx, id);
+
+        // pixel data is stored big endian, as read through a ShortBuffer
+        ByteBuffer bytes = ByteBuffer.allocate(100 * 100 * 2);
+        ShortBuffer values = bytes.asShortBuffer();
+        Random rand = new Random();
+        for (int i = 0; i < 100 * 100; i++)
+            values.put(i, (short) rand.nextInt(65536));
+
+        RawPixelsStorePrx store = gw.createPixelsStore(rootCtx);
+        store.setPixelsId(img.getDefaultPixels().getId(), false);
+        store.setPlane(bytes.array(), 0, 0, 0);
+        gw.closeService(rootCtx, store);
+
+        Plane2D plane = rawdataFacility.getPlane(rootCtx,
+                img.getDefaultPixels(), 0, 0, 0);
+        double[][] expPixelData = new double[100][100];
+        for (int i = 0; i < 10000; i++) {
+            int x = i % 100;
+            int y = i / 100;
+            expPixelData[x][y] = values.get(y * 100 + x) & 0xFFFF;
+            Assert.assertEquals(plane.getPixelValue(x, y), expPixelData[x][y]);
+        }
+        Assert.assertEquals(plane.getPixelValues(), expPixelData);
+    }
+
     @Test
     public void testGetTile() throws DataSourceException, DSOutOfServiceException, DSAccessException {
         ImageData img = browseFacility.getImage(rootCtx, imgId);
@@ -111,6 +156,36 @@ public class RawDataFacilityTest extends GatewayTest {
         Assert.assertEquals(planeData, rawDataPart);
     }
     
+    @Test
+    public void testGetTileAfterUpdate() throws Exception {
+        ImageData img = browseFacility.getImage(rootCtx, imgId);
+        int w = img.getDefaultPixels().getSizeX(), h = 1;
+
+        // the second channel has not been written yet
+        Plane2D plane = rawdataFacility.getTile(rootCtx, img.getDefaultPixels(), 0, 0, 1, 0, 0, w, h);
+        for (int i = 0; i < w; i++)
+            Assert.assertEquals(plane.getRawValue(i), 0);
+
+        byte[] update = new byte[100 * 100];
+        for (int i = 0; i < update.length; i++)
+            update[i] = (byte) (i % 255 + 1);
+        RawPixelsStorePrx store = gw.createPixelsStore(rootCtx);
+        store.setPixelsId(img.getDefaultPixels().getId(), false);
+        store.setPlane(update, 0, 1, 0);
+        gw.closeService(rootCtx, store);
+
+        // reading the same tile again must reflect the update
+        plane = rawdataFacility.getTile(rootCtx, img.getDefaultPixels(), 0, 0, 1, 0, 0, w, h);
+        byte[] planeData = new byte[w];
+        for (int i = 0; i < w; i++)
+            planeData[i] = plane.getRawValue(i);
+
+        byte[] updatePart = new byte[w];
+        System.arraycopy(update, 0, updatePart, 0, w);
+
+        Assert.assertEquals(planeData, updatePart);
+    }
+
     @Test
     public void testGetHistogram() throws DataSourceException,
             DSOutOfServiceException, DSAccessException {
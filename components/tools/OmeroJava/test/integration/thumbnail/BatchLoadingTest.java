@@ -33,9 +33,14 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Collections of tests for the <code>ThumbnailStore</code> service.
@@ -113,6 +118,69 @@ public class BatchLoadingTest extends AbstractServerTest {
         svc.close();
     }
 
+    /**
+     * Tests that the thumbnails of a set of images can be generated by
+     * several thumbnail stores working concurrently on disjoint batches,
+     * each using getThumbnailSet(rint, rint, list<long>).
+     *
+     * @throws Exception Thrown if an error occurred.
+     */
+    @Test
+    public void testGetThumbnailSetConcurrentBatches() throws Exception {
+        String format = ModelMockFactory.FORMATS[0];
+        File f = File.createTempFile("testImportGraphicsImages" + format, "."
+                + format);
+        mmFactory.createImageFile(f, format);
+        final List<Long> pixelsIds = new ArrayList<Long>();
+        int thumbNailCount = 12;
+        final int workers = 3;
+        try {
+            for (int i = 0; i < thumbNailCount; i++) {
+                List<Pixels> pxls = importFile(importer, f, format);
+                pixelsIds.add(pxls.get(0).getId().getValue());
+            }
+        } catch (Throwable e) {
+            throw new Exception("cannot import image", e);
+        }
+        f.deleteOnExit();
+
+        final int sizeX = 48;
+        final int sizeY = 48;
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        List<Future<Map<Long, byte[]>>> results =
+                new ArrayList<Future<Map<Long, byte[]>>>();
+        try {
+            for (int w = 0; w < workers; w++) {
+                final List<Long> batch = new ArrayList<Long>();
+                for (int i = w; i < pixelsIds.size(); i += workers) {
+                    batch.add(pixelsIds.get(i));
+                }
+                results.add(pool.submit(new Callable<Map<Long, byte[]>>() {
+                    public Map<Long, byte[]> call() throws Exception {
+                        ThumbnailStorePrx svc = factory.createThumbnailStore();
+                        try {
+                            return svc.getThumbnailSet(
+                                    omero.rtypes.rint(sizeX),
+                                    omero.rtypes.rint(sizeY), batch);
+                        } finally {
+                            svc.close();
+                        }
+                    }
+                }));
+            }
+            Map<Long, byte[]> thmbs = new HashMap<Long, byte[]>();
+            for (Future<Map<Long, byte[]>> result : results) {
+                thmbs.putAll(result.get());
+            }
+            Assert.assertEquals(thmbs.keySet().size(), thumbNailCount);
+            for (Long id : pixelsIds) {
+                Utils.checkSize(thmbs.get(id), sizeX, sizeY);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     /**
      * Test that thumbnails can be retrieved from multiple groups at once.
      *
@@ -21,7 +21,9 @@ package integration.thumbnail;
 
 import integration.AbstractServerImportTest;
 import ome.formats.importer.ImportConfig;
+import omero.MissingPyramidException;
 import omero.ServerError;
+import omero.api.RawPixelsStorePrx;
 import omero.api.RenderingEnginePrx;
 import omero.api.ThumbnailStorePrx;
 import omero.model.EventI;
@@ -400,6 +402,52 @@ public class SkipThumbnailsPermissionsTest extends AbstractServerImportTest {
         }
     }
 
+    /**
+     * Test:
+     * 1. User1 import an image (pyramid will be created) and skip the thumbnail
+     * generation during import.
+     * 2. User1 opens a raw pixels store before the pyramid is available and
+     * is told which pixels set is pending through a {@code MissingPyramidException}
+     * 3. User1 opens a raw pixels store once the pyramid has been generated
+     *
+     * @throws Throwable
+     */
+    @Test
+    public void testRawPixelsStoreWhilePyramidPending() throws Throwable {
+        EventContext user1 = newUserAndGroup("rw----");
+        loginUser(user1);
+
+        ImportConfig config = new ImportConfig();
+        config.doThumbnails.set(false); // skip thumbnails
+
+        // Create a fake file. A pyramid will be generated
+        File f = File.createTempFile("bigImageFake&sizeX=3500&sizeY=3500&little=false", ".fake");
+        f.deleteOnExit();
+        Pixels pixels = importFile(config, f, "fake").get(0);
+        final long pixelsId = pixels.getId().getValue();
+        triggerPyramidGeneration(pixelsId);
+
+        RawPixelsStorePrx rps = factory.createRawPixelsStore();
+        try {
+            rps.setPixelsId(pixelsId, false);
+            Assert.fail("The pyramid should not be available yet.");
+        } catch (MissingPyramidException e) {
+            Assert.assertEquals(e.pixelsID, pixelsId);
+            Assert.assertTrue(e.backOff >= 0);
+        } finally {
+            rps.close();
+        }
+
+        waitForPyramid(pixelsId);
+        rps = factory.createRawPixelsStore();
+        try {
+            rps.setPixelsId(pixelsId, false);
+            Assert.assertTrue(rps.requiresPixelsPyramid());
+        } finally {
+            rps.close();
+        }
+    }
+
     /**
      * Test scenario outlined on:
      * https://trello.com/c/itoDPkxB/24-read-only-settings-and-thumbnails-generation
@@ -740,9 +788,20 @@ public class SkipThumbnailsPermissionsTest extends AbstractServerImportTest {
                     + " Reason: " + e.toString());
         }
         triggerPyramidGeneration(pixels.getId().getValue());
+        return waitForPyramid(pixels.getId().getValue());
+    }
 
+    /**
+     * Waits for the pyramid of the given pixels set to be generated by
+     * checking if stats exists.
+     *
+     * @param pixelsId the pixels set to wait for
+     * @return pixels object
+     * @throws Exception
+     */
+    private Pixels waitForPyramid(long pixelsId) throws Exception {
         // Wait for a pyramid to be built (stats will be not null)
-        Pixels p = factory.getPixelsService().retrievePixDescription(pixels.getId().getValue());
+        Pixels p = factory.getPixelsService().retrievePixDescription(pixelsId);
         StatsInfo stats = p.getChannel(0).getStatsInfo();
         int waits = 0;
         Assert.assertEquals(stats, null);
@@ -750,8 +809,7 @@ public class SkipThumbnailsPermissionsTest extends AbstractServerImportTest {
             Thread.sleep(INTERVAL);
             waits++;
             factory.createRawPixelsStore();
-            p = factory.getPixelsService().retrievePixDescription(
-                    pixels.getId().getValue());
+            p = factory.getPixelsService().retrievePixDescription(pixelsId);
             stats = p.getChannel(0).getStatsInfo();
         }
         if (stats == null) {